@@ -0,0 +1,410 @@
+package utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Hard deadlines for tests and suites, plus cleanup of leaked browser processes.
+ *
+ * Driver processes (chromedriver, geckodriver, msedgedriver) are identified as
+ * the child processes of this JVM that appear while a driver is being created.
+ * When a deadline passes their whole process tree is killed, which makes the
+ * blocked WebDriver call on the test thread fail instead of hanging forever.
+ * Processes that outlive a single test (the shared browser) can be kept for
+ * the suite: they stay covered by the suite deadline and by reapLeaked().
+ *
+ * Every claimed driver tree is also recorded in a pid file per JVM under the
+ * temp directory (not target/, which mvn clean removes). If the JVM dies
+ * without cleaning up, the next suite on the agent reaps exactly those
+ * processes. This matters on Windows, where argument lists are not available
+ * and automated chrome.exe/msedge.exe cannot be recognised otherwise.
+ */
+public class BrowserWatchdog {
+
+	private static final Logger logger = LogManager.getLogger(BrowserWatchdog.class);
+
+	private static final List<String> DRIVER_NAMES = List.of("chromedriver", "geckodriver", "msedgedriver");
+	private static final List<String> AUTOMATION_FLAGS = List.of("--test-type=webdriver", "-marionette",
+			"--enable-automation");
+
+	private static final Path PID_DIR = Paths.get(System.getProperty("java.io.tmpdir"), "browser-watchdog");
+	private static final Path PID_FILE = PID_DIR.resolve(ProcessHandle.current().pid() + ".pids");
+
+	private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "browser-watchdog");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	// Every driver process started by this JVM that has not been cleaned up yet
+	private static final Set<ProcessHandle> tracked = ConcurrentHashMap.newKeySet();
+	private static final AtomicInteger testTimeouts = new AtomicInteger();
+	private static volatile boolean suiteExpired;
+	private static ScheduledFuture<?> suiteDeadline;
+
+	/**
+	 * Arm the per-suite deadline; when it passes every tracked browser is killed
+	 * and isSuiteExpired() turns true so remaining tests can be skipped
+	 */
+	public static synchronized void startSuite(Duration timeout) {
+		suiteExpired = false;
+		testTimeouts.set(0);
+		if (suiteDeadline != null) {
+			suiteDeadline.cancel(false);
+		}
+		suiteDeadline = scheduler.schedule(() -> {
+			suiteExpired = true;
+			logger.error("Suite exceeded hard timeout of " + timeout.getSeconds() + "s, killing all browsers");
+			for (ProcessHandle handle : new ArrayList<>(tracked)) {
+				killTree(handle);
+			}
+		}, timeout.toMillis(), TimeUnit.MILLISECONDS);
+		logger.info("Suite watchdog armed: " + timeout.getSeconds() + "s");
+	}
+
+	public static synchronized void finishSuite() {
+		if (suiteDeadline != null) {
+			suiteDeadline.cancel(false);
+			suiteDeadline = null;
+		}
+	}
+
+	public static boolean isSuiteExpired() {
+		return suiteExpired;
+	}
+
+	public static int getTestTimeouts() {
+		return testTimeouts.get();
+	}
+
+	/**
+	 * Start watching a test. Call before the driver is created and close the
+	 * returned watch in tearDown.
+	 */
+	public static Watch watch(String testName, Duration timeout) {
+		return new Watch(testName, timeout, new ArrayList<>(), false, true);
+	}
+
+	/**
+	 * Like watch(), for starting processes that belong to the suite rather than
+	 * a test (the shared browser); its expiry is not counted as a test timeout.
+	 * Hand the processes over with keepForSuite() once started.
+	 */
+	public static Watch watchSuiteProcess(String name, Duration timeout) {
+		return new Watch(name, timeout, new ArrayList<>(), false, false);
+	}
+
+	/**
+	 * Deadline for a single call against suite-scoped processes, e.g. a DevTools
+	 * command on the shared browser. Kills those processes if the call hangs;
+	 * closing it only cancels the deadline.
+	 */
+	public static Watch watchProcesses(String name, Duration timeout, List<ProcessHandle> processes) {
+		return new Watch(name, timeout, new ArrayList<>(processes), true, false);
+	}
+
+	/**
+	 * Stop tracking suite-scoped processes after a clean shutdown, killing any
+	 * that do not exit within a few seconds
+	 */
+	public static void release(List<ProcessHandle> processes) {
+		for (ProcessHandle handle : processes) {
+			try {
+				handle.onExit().get(5, TimeUnit.SECONDS);
+			} catch (Exception e) {
+				logger.warn("Process " + handle.pid() + " still running after quit, killing it");
+				killTree(handle);
+			}
+			tracked.remove(handle);
+		}
+	}
+
+	/**
+	 * Kill driver and browser processes started by this JVM that are still alive,
+	 * e.g. because quit() was never reached. Returns the number of leaked trees.
+	 */
+	public static int reapLeaked() {
+		int leaked = 0;
+		for (ProcessHandle handle : new ArrayList<>(tracked)) {
+			if (handle.isAlive()) {
+				logger.warn("Leaked driver process " + handle.pid() + ", killing it");
+				killTree(handle);
+				leaked++;
+			}
+			tracked.remove(handle);
+		}
+		try {
+			// Nothing of ours is left to reap
+			Files.deleteIfExists(PID_FILE);
+		} catch (IOException e) {
+			logger.warn("Failed to delete watchdog pid file " + PID_FILE + ": " + e.getMessage());
+		}
+		return leaked;
+	}
+
+	/**
+	 * Kill driver and automated browser processes whose parent is gone, such as
+	 * those left behind by a crashed or aborted earlier build. Returns the number
+	 * of process trees killed.
+	 */
+	public static int reapOrphans() {
+		int reaped = reapRecorded();
+
+		if (!ProcessHandle.current().info().commandLine().isPresent()) {
+			logger.warn("Process argument lists are not available on this OS; orphaned browsers are only found"
+					+ " through recorded pid files, drivers also by name");
+		}
+		List<ProcessHandle> orphans = ProcessHandle.allProcesses().filter(BrowserWatchdog::isOrphanedBrowser)
+				.collect(Collectors.toList());
+		for (ProcessHandle orphan : orphans) {
+			logger.warn("Reaping orphaned browser process " + orphan.pid() + " ("
+					+ orphan.info().command().orElse("?") + ")");
+			killTree(orphan);
+		}
+		return reaped + orphans.size();
+	}
+
+	/**
+	 * Kill the processes recorded by JVMs that are no longer running. Start times
+	 * are compared so a reused pid is never killed.
+	 */
+	private static int reapRecorded() {
+		if (!Files.isDirectory(PID_DIR)) {
+			return 0;
+		}
+
+		int reaped = 0;
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(PID_DIR, "*.pids")) {
+			for (Path file : files) {
+				String owner = file.getFileName().toString().replace(".pids", "");
+				try {
+					if (ProcessHandle.of(Long.parseLong(owner)).map(ProcessHandle::isAlive).orElse(false)) {
+						// Suite still running in another JVM on this agent
+						continue;
+					}
+				} catch (NumberFormatException e) {
+					continue;
+				}
+
+				for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+					String[] fields = line.trim().split("\\s+");
+					if (fields.length != 2) {
+						continue;
+					}
+					try {
+						long pid = Long.parseLong(fields[0]);
+						long started = Long.parseLong(fields[1]);
+						Optional<ProcessHandle> handle = ProcessHandle.of(pid).filter(ProcessHandle::isAlive)
+								.filter(h -> started >= 0 && startMillis(h) == started);
+						if (handle.isPresent()) {
+							logger.warn("Reaping browser process " + pid + " left behind by JVM " + owner + " ("
+									+ handle.get().info().command().orElse("?") + ")");
+							killTree(handle.get());
+							reaped++;
+						}
+					} catch (NumberFormatException e) {
+						// Torn line from a JVM that died mid-write
+					}
+				}
+				Files.deleteIfExists(file);
+			}
+		} catch (IOException e) {
+			logger.warn("Failed to read watchdog pid files in " + PID_DIR + ": " + e.getMessage());
+		}
+		return reaped;
+	}
+
+	/**
+	 * Record a driver process and its current descendants (the browser) so a
+	 * later suite can reap them if this JVM dies first
+	 */
+	private static synchronized void record(ProcessHandle handle) {
+		StringBuilder lines = new StringBuilder();
+		List<ProcessHandle> processes = new ArrayList<>();
+		processes.add(handle);
+		handle.descendants().forEach(processes::add);
+		for (ProcessHandle process : processes) {
+			lines.append(process.pid()).append(' ').append(startMillis(process)).append('\n');
+		}
+		try {
+			Files.createDirectories(PID_DIR);
+			Files.write(PID_FILE, lines.toString().getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE,
+					StandardOpenOption.APPEND);
+		} catch (IOException e) {
+			logger.warn("Failed to record driver process " + handle.pid() + ": " + e.getMessage());
+		}
+	}
+
+	private static long startMillis(ProcessHandle handle) {
+		return handle.info().startInstant().map(Instant::toEpochMilli).orElse(-1L);
+	}
+
+	private static boolean isOrphanedBrowser(ProcessHandle handle) {
+		if (handle.pid() == ProcessHandle.current().pid()) {
+			return false;
+		}
+
+		String command = handle.info().command().orElse("").toLowerCase(Locale.ROOT);
+		String name = command.substring(Math.max(command.lastIndexOf('/'), command.lastIndexOf('\\')) + 1);
+		boolean driver = DRIVER_NAMES.stream().anyMatch(name::startsWith);
+		// Browsers only count when started by a driver; argument lists are not available on every OS
+		String commandLine = handle.info().commandLine().orElse("");
+		boolean automatedBrowser = !driver && AUTOMATION_FLAGS.stream().anyMatch(commandLine::contains);
+		if (!driver && !automatedBrowser) {
+			return false;
+		}
+
+		// Orphans are re-parented to init on Linux and lose their parent on Windows
+		Optional<ProcessHandle> parent = handle.parent();
+		return !parent.isPresent() || !parent.get().isAlive() || parent.get().pid() == 1;
+	}
+
+	private static void killTree(ProcessHandle handle) {
+		// Collect descendants first: once the parent dies they are re-parented and lost
+		List<ProcessHandle> descendants = handle.descendants().collect(Collectors.toList());
+		Collections.reverse(descendants);
+		for (ProcessHandle descendant : descendants) {
+			descendant.destroyForcibly();
+		}
+		handle.destroyForcibly();
+		tracked.remove(handle);
+	}
+
+	/**
+	 * Deadline and process bookkeeping for one test
+	 */
+	public static class Watch implements AutoCloseable {
+
+		private final String testName;
+		private Set<Long> childrenBefore;
+		private final List<ProcessHandle> processes;
+		// Processes owned by someone else (the suite); close() leaves them alone
+		private final boolean borrowed;
+		private final boolean countsAsTest;
+		private final ScheduledFuture<?> deadline;
+		private boolean starting;
+		private boolean claimed;
+		private volatile boolean timedOut;
+
+		private Watch(String testName, Duration timeout, List<ProcessHandle> processes, boolean borrowed,
+				boolean countsAsTest) {
+			this.testName = testName;
+			this.processes = processes;
+			this.borrowed = borrowed;
+			this.countsAsTest = countsAsTest;
+			this.childrenBefore = currentChildren();
+			this.deadline = scheduler.schedule(this::expire, timeout.toMillis(), TimeUnit.MILLISECONDS);
+		}
+
+		/**
+		 * Mark the start of driver creation, once the creation lock is held. From
+		 * here on a deadline also kills the processes of a driver that hangs
+		 * before driverStarted() is reached.
+		 */
+		public synchronized void driverStarting() {
+			childrenBefore = currentChildren();
+			starting = true;
+		}
+
+		/**
+		 * Claim the child processes started since the watch was created (or since
+		 * driverStarting()). Driver creation must be serialized for this to
+		 * attribute processes correctly.
+		 */
+		public synchronized void driverStarted() {
+			claimNewChildren();
+			logger.info("Watching " + processes.size() + " driver process(es) for " + testName);
+		}
+
+		private Set<Long> currentChildren() {
+			return ProcessHandle.current().children().map(ProcessHandle::pid).collect(Collectors.toSet());
+		}
+
+		private void claimNewChildren() {
+			claimed = true;
+			ProcessHandle.current().children().filter(child -> !childrenBefore.contains(child.pid()))
+					.filter(tracked::add).forEach(child -> {
+						processes.add(child);
+						record(child);
+					});
+		}
+
+		/**
+		 * Hand the claimed processes over to the suite: the deadline is cancelled
+		 * and close() becomes a no-op, but the processes stay tracked so the suite
+		 * deadline and reapLeaked() still cover them
+		 */
+		public synchronized List<ProcessHandle> keepForSuite() {
+			deadline.cancel(false);
+			List<ProcessHandle> kept = new ArrayList<>(processes);
+			processes.clear();
+			return kept;
+		}
+
+		public boolean isTimedOut() {
+			return timedOut;
+		}
+
+		private synchronized void expire() {
+			timedOut = true;
+			if (countsAsTest) {
+				testTimeouts.incrementAndGet();
+			}
+			// Hung inside driver creation: the creation lock is still held, so every
+			// untracked new child belongs to this driver
+			if (starting && !claimed) {
+				claimNewChildren();
+			}
+			logger.error("'" + testName + "' exceeded its hard timeout, killing " + processes.size()
+					+ " driver process tree(s)");
+			for (ProcessHandle handle : processes) {
+				killTree(handle);
+			}
+		}
+
+		/**
+		 * Cancel the deadline and make sure the driver processes are gone, killing
+		 * them if quit() did not stop them within a few seconds
+		 */
+		@Override
+		public synchronized void close() {
+			deadline.cancel(false);
+			if (borrowed) {
+				return;
+			}
+			for (ProcessHandle handle : processes) {
+				try {
+					handle.onExit().get(5, TimeUnit.SECONDS);
+				} catch (Exception e) {
+					logger.warn("Driver process " + handle.pid() + " still running after quit, killing it");
+					killTree(handle);
+				}
+				tracked.remove(handle);
+			}
+			processes.clear();
+		}
+	}
+}
@@ -0,0 +1,172 @@
+package utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Reads rows of a CSV test data file for TestNG data providers.
+ *
+ * Rows are parsed one per next() call. This only keeps memory flat for
+ * sequential data providers: with parallel = true TestNG drains the whole
+ * iterator before starting any row. The first non-comment line is the
+ * header; callers pick the columns they need by name. Lines starting with #
+ * are comments. Values may be quoted ("a,b" and "" for a quote) and may
+ * reference config.properties as ${key}, which keeps credentials out of
+ * the data files. References are returned as is and resolved by the test
+ * with resolve(), so secrets never become test parameters that TestNG and
+ * Allure print in their reports.
+ */
+public class CsvDataReader implements Iterator<Object[]> {
+
+	private static final Logger logger = LogManager.getLogger(CsvDataReader.class);
+	private static final Pattern CONFIG_REFERENCE = Pattern.compile("\\$\\{([^}]+)\\}");
+
+	private final String filePath;
+	private final BufferedReader reader;
+	private final int[] columnIndexes;
+	private Object[] nextRow;
+	private int rowCount;
+
+	private CsvDataReader(String filePath, String... columns) throws IOException {
+		this.filePath = filePath;
+		this.reader = Files.newBufferedReader(Paths.get(filePath), StandardCharsets.UTF_8);
+
+		String headerLine = readDataLine();
+		if (headerLine == null) {
+			reader.close();
+			throw new IOException("Test data file has no header: " + filePath);
+		}
+		List<String> header = parseLine(headerLine);
+		columnIndexes = new int[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			columnIndexes[i] = header.indexOf(columns[i]);
+			if (columnIndexes[i] < 0) {
+				reader.close();
+				throw new IOException("Column '" + columns[i] + "' not found in " + filePath);
+			}
+		}
+	}
+
+	/**
+	 * Open a CSV file and stream the given columns of every row as Object[]
+	 */
+	public static Iterator<Object[]> read(String filePath, String... columns) {
+		try {
+			logger.info("Reading test data from: " + filePath);
+			return new CsvDataReader(filePath, columns);
+		} catch (IOException e) {
+			logger.error("Failed to open test data file: " + e.getMessage(), e);
+			throw new RuntimeException("Failed to open test data file: " + filePath, e);
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (nextRow == null) {
+			nextRow = readRow();
+		}
+		return nextRow != null;
+	}
+
+	@Override
+	public Object[] next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		Object[] row = nextRow;
+		nextRow = null;
+		return row;
+	}
+
+	private Object[] readRow() {
+		try {
+			String line = readDataLine();
+			if (line == null) {
+				reader.close();
+				logger.info("Read " + rowCount + " rows from: " + filePath);
+				return null;
+			}
+
+			List<String> values = parseLine(line);
+			Object[] row = new Object[columnIndexes.length];
+			for (int i = 0; i < columnIndexes.length; i++) {
+				int index = columnIndexes[i];
+				row[i] = index < values.size() ? values.get(index) : "";
+			}
+			rowCount++;
+			return row;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read test data file: " + filePath, e);
+		}
+	}
+
+	private String readDataLine() throws IOException {
+		String line;
+		while ((line = reader.readLine()) != null) {
+			String trimmed = line.trim();
+			if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+				return line;
+			}
+		}
+		return null;
+	}
+
+	private static List<String> parseLine(String line) {
+		List<String> values = new ArrayList<>();
+		StringBuilder current = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					current.append('"');
+					i++;
+				} else if (c == '"') {
+					quoted = false;
+				} else {
+					current.append(c);
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				values.add(current.toString());
+				current.setLength(0);
+			} else {
+				current.append(c);
+			}
+		}
+		values.add(current.toString());
+		return values;
+	}
+
+	/**
+	 * Replace ${key} references in a test data value with their config.properties
+	 * values (empty when the key is missing)
+	 */
+	public static String resolve(String value) {
+		Matcher matcher = CONFIG_REFERENCE.matcher(value);
+		if (!matcher.find()) {
+			return value;
+		}
+		StringBuffer sb = new StringBuffer();
+		do {
+			String replacement = ConfigReader.getProperty(matcher.group(1), "");
+			matcher.appendReplacement(sb, Matcher.quoteReplacement(replacement));
+		} while (matcher.find());
+		matcher.appendTail(sb);
+		return sb.toString();
+	}
+}
@@ -0,0 +1,280 @@
+package utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.logging.LogEntry;
+import org.openqa.selenium.logging.LogType;
+import org.openqa.selenium.logging.LoggingPreferences;
+
+import io.qameta.allure.Allure;
+
+public class FailureEvidenceUtil {
+
+	private static final Logger logger = LogManager.getLogger(FailureEvidenceUtil.class);
+	private static final String EVIDENCE_DIR = "evidence/";
+
+	// Size bounds, so a huge DOM or a chatty page cannot blow up the bundle
+	private static final int MAX_PAGE_SOURCE_CHARS = Integer
+			.parseInt(ConfigReader.getProperty("evidence.max.page.source.chars", "200000"));
+	private static final int MAX_CONSOLE_ENTRIES = Integer
+			.parseInt(ConfigReader.getProperty("evidence.max.console.entries", "200"));
+	private static final int MAX_NETWORK_EVENTS = Integer
+			.parseInt(ConfigReader.getProperty("evidence.max.network.events", "100"));
+	private static final int MAX_ENTRY_CHARS = 1000;
+
+	// Disk writes happen here so the test thread only pays for capture and gzip
+	private static final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "failure-evidence-writer");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	static {
+		File directory = new File(EVIDENCE_DIR);
+		if (!directory.exists()) {
+			directory.mkdirs();
+			logger.info("Created evidence directory: " + EVIDENCE_DIR);
+		}
+	}
+
+	/**
+	 * Enable the logs needed for the console and network sections (Chromium only).
+	 * The performance log is limited to Network events, the only ones read here,
+	 * so passing tests do not pay for buffering Page and timeline events.
+	 */
+	public static void enableLogging(ChromeOptions options) {
+		LoggingPreferences preferences = new LoggingPreferences();
+		preferences.enable(LogType.BROWSER, Level.ALL);
+		if (Boolean.parseBoolean(ConfigReader.getProperty("evidence.network.log", "true"))) {
+			preferences.enable(LogType.PERFORMANCE, Level.ALL);
+			options.setExperimentalOption("perfLoggingPrefs", Map.of("enableNetwork", true, "enablePage", false));
+		}
+		options.setCapability("goog:loggingPrefs", preferences);
+	}
+
+	/**
+	 * Capture a gzip-compressed text bundle (URL, cookies, console log, recent
+	 * network events and page source), attach it to Allure and save it to disk
+	 * in the background
+	 */
+	public static void captureFailureEvidence(WebDriver driver, String testName) {
+		try {
+			byte[] bundle = gzip(buildBundle(driver, testName));
+
+			Allure.addAttachment("FAILURE_EVIDENCE_" + testName, "application/gzip", new ByteArrayInputStream(bundle),
+					"txt.gz");
+
+			String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
+			String filePath = EVIDENCE_DIR + "FAILURE_" + testName + "_" + timestamp + ".txt.gz";
+			writer.submit(() -> {
+				try {
+					Files.write(Paths.get(filePath), bundle);
+					logger.info("Failure evidence saved to: " + filePath + " (" + bundle.length + " bytes)");
+				} catch (IOException e) {
+					logger.error("Failed to save failure evidence: " + e.getMessage(), e);
+				}
+			});
+
+		} catch (Exception e) {
+			logger.error("Failed to capture failure evidence: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Wait for pending evidence writes, called once the suite has finished
+	 */
+	public static void flush() {
+		try {
+			// The writer is single threaded, so an empty task completes after every earlier write
+			writer.submit(() -> {
+			}).get(30, TimeUnit.SECONDS);
+		} catch (TimeoutException e) {
+			logger.warn("Timed out waiting for failure evidence to be written");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			logger.error("Failed to flush failure evidence: " + e.getMessage(), e);
+		}
+	}
+
+	private static String buildBundle(WebDriver driver, String testName) {
+		StringBuilder sb = new StringBuilder(16 * 1024);
+		sb.append("Test: ").append(testName).append('\n');
+		sb.append("Captured: ").append(new Date()).append("\n\n");
+
+		section(sb, "URL");
+		try {
+			sb.append(driver.getCurrentUrl()).append('\n');
+		} catch (Exception e) {
+			unavailable(sb, e);
+		}
+
+		section(sb, "COOKIES");
+		try {
+			for (Cookie cookie : driver.manage().getCookies()) {
+				// Values can hold session secrets; the name and scope are enough to debug
+				sb.append(cookie.getName()).append(" domain=").append(cookie.getDomain()).append(" path=")
+						.append(cookie.getPath()).append(" expiry=").append(cookie.getExpiry())
+						.append(" secure=").append(cookie.isSecure()).append('\n');
+			}
+		} catch (Exception e) {
+			unavailable(sb, e);
+		}
+
+		section(sb, "CONSOLE LOG");
+		try {
+			Deque<String> console = new ArrayDeque<>();
+			for (LogEntry entry : driver.manage().logs().get(LogType.BROWSER)) {
+				keepLast(console, entry.getTimestamp() + " " + entry.getLevel() + " " + entry.getMessage(),
+						MAX_CONSOLE_ENTRIES);
+			}
+			appendAll(sb, console);
+		} catch (Exception e) {
+			unavailable(sb, e);
+		}
+
+		section(sb, "NETWORK EVENTS (last " + MAX_NETWORK_EVENTS + ")");
+		try {
+			Deque<String> network = new ArrayDeque<>();
+			Json json = new Json();
+			for (LogEntry entry : driver.manage().logs().get(LogType.PERFORMANCE)) {
+				String event;
+				try {
+					event = networkEvent(json, entry);
+				} catch (RuntimeException e) {
+					// One unexpected entry should not hide the rest of the section
+					event = null;
+				}
+				if (event != null) {
+					keepLast(network, event, MAX_NETWORK_EVENTS);
+				}
+			}
+			appendAll(sb, network);
+		} catch (Exception e) {
+			unavailable(sb, e);
+		}
+
+		section(sb, "PAGE SOURCE");
+		try {
+			String source = driver.getPageSource();
+			if (source.length() > MAX_PAGE_SOURCE_CHARS) {
+				sb.append(source, 0, MAX_PAGE_SOURCE_CHARS);
+				sb.append("\n... truncated ").append(source.length() - MAX_PAGE_SOURCE_CHARS).append(" chars\n");
+			} else {
+				sb.append(source).append('\n');
+			}
+		} catch (Exception e) {
+			unavailable(sb, e);
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Reduce a DevTools performance log entry to one line for requests, responses
+	 * and failures; other events are dropped
+	 */
+	@SuppressWarnings("unchecked")
+	private static String networkEvent(Json json, LogEntry entry) {
+		String raw = entry.getMessage();
+		if (!raw.contains("\"Network.")) {
+			return null;
+		}
+
+		Map<String, Object> log = json.toType(raw, Map.class);
+		Map<String, Object> message = (Map<String, Object>) log.get("message");
+		if (message == null) {
+			return null;
+		}
+		String method = String.valueOf(message.get("method"));
+		Map<String, Object> params = (Map<String, Object>) message.get("params");
+		if (params == null) {
+			return null;
+		}
+
+		switch (method) {
+		case "Network.requestWillBeSent": {
+			Map<String, Object> request = (Map<String, Object>) params.get("request");
+			if (request == null) {
+				return null;
+			}
+			return entry.getTimestamp() + " REQUEST  " + request.get("method") + " " + truncate(request.get("url"));
+		}
+		case "Network.responseReceived": {
+			Map<String, Object> response = (Map<String, Object>) params.get("response");
+			if (response == null) {
+				return null;
+			}
+			return entry.getTimestamp() + " RESPONSE " + response.get("status") + " " + truncate(response.get("url"));
+		}
+		case "Network.loadingFailed":
+			return entry.getTimestamp() + " FAILED   " + params.get("type") + " " + params.get("errorText")
+					+ " requestId=" + params.get("requestId");
+		default:
+			return null;
+		}
+	}
+
+	private static byte[] gzip(String text) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(text.length() / 4 + 64);
+		try (Writer out = new OutputStreamWriter(new GZIPOutputStream(bytes), StandardCharsets.UTF_8)) {
+			out.write(text);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static void keepLast(Deque<String> lines, String line, int max) {
+		if (lines.size() == max) {
+			lines.removeFirst();
+		}
+		lines.addLast(truncate(line));
+	}
+
+	private static void appendAll(StringBuilder sb, Deque<String> lines) {
+		if (lines.isEmpty()) {
+			sb.append("(none)\n");
+		}
+		for (String line : lines) {
+			sb.append(line).append('\n');
+		}
+	}
+
+	private static String truncate(Object value) {
+		String text = String.valueOf(value);
+		return text.length() > MAX_ENTRY_CHARS ? text.substring(0, MAX_ENTRY_CHARS) + "..." : text;
+	}
+
+	private static void section(StringBuilder sb, String title) {
+		sb.append("\n===== ").append(title).append(" =====\n");
+	}
+
+	private static void unavailable(StringBuilder sb, Exception e) {
+		sb.append("(not available: ").append(e.getClass().getSimpleName()).append(")\n");
+	}
+}
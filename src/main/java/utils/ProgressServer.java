@@ -0,0 +1,331 @@
+package utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Embedded HTTP endpoint that exposes the progress of the running suite.
+ *
+ *   GET /progress  JSON snapshot: counters, running tests with their current
+ *                  duration, average duration and ETA
+ *   GET /events    Server-Sent Events stream of test start/finish events, with
+ *                  a progress snapshot every few seconds
+ *
+ * The listener callbacks only bump counters and publish into a fixed-size ring
+ * buffer; all JSON is built on the HTTP threads, so a slow or stuck client
+ * never delays a test.
+ *
+ * Data provider rows are not known when the suite starts; wrap the provider's
+ * iterator with counted() so each row is added to the expected total as TestNG
+ * reads it. Parallel providers are read in full before the first row runs.
+ */
+public class ProgressServer {
+
+	private static final Logger logger = LogManager.getLogger(ProgressServer.class);
+	private static final int RING_SIZE = 1024;
+	private static final long SSE_POLL_MILLIS = 500;
+	private static final long SSE_SNAPSHOT_MILLIS = 5000;
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final String suiteName;
+	// Endpoint of the running suite, used by counted() data providers
+	private static volatile ProgressServer active;
+
+	// Expected test invocations; data provider rows are added as they are read
+	private final AtomicInteger expectedTests = new AtomicInteger();
+	private final long suiteStart = System.currentTimeMillis();
+	private volatile boolean running = true;
+
+	private final AtomicInteger started = new AtomicInteger();
+	private final AtomicInteger passed = new AtomicInteger();
+	private final AtomicInteger failed = new AtomicInteger();
+	private final AtomicInteger skipped = new AtomicInteger();
+	private final AtomicLong finishedDuration = new AtomicLong();
+
+	// Tests in flight, keyed by the thread that runs them
+	private final Map<Long, Event> inFlight = new ConcurrentHashMap<>();
+
+	// Sequence numbers are reserved before their ring slot is written; readers
+	// check the slot's own seq to tell a pending slot from a published one
+	private final AtomicLong sequence = new AtomicLong();
+	private final AtomicReferenceArray<Event> ring = new AtomicReferenceArray<>(RING_SIZE);
+
+	private ProgressServer(String host, int port, String suiteName, int expectedTests) throws IOException {
+		this.suiteName = suiteName;
+		this.expectedTests.set(expectedTests);
+		this.executor = Executors.newCachedThreadPool(r -> {
+			Thread thread = new Thread(r, "progress-server");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.server = HttpServer.create(new InetSocketAddress(host, port), 0);
+		server.createContext("/progress", this::handleProgress);
+		server.createContext("/events", this::handleEvents);
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	/**
+	 * Start the endpoint when progress.port (system property or config) is set to
+	 * a port number; returns null when progress streaming is disabled or cannot
+	 * be started, which never affects the suite itself. The endpoint has no
+	 * authentication, so it binds to progress.host (default loopback only).
+	 */
+	public static ProgressServer startIfEnabled(String suiteName, int expectedTests) {
+		String port = System.getProperty("progress.port", ConfigReader.getProperty("progress.port", ""));
+		if (port == null || port.trim().isEmpty()) {
+			return null;
+		}
+
+		String host = System.getProperty("progress.host", ConfigReader.getProperty("progress.host", "127.0.0.1"))
+				.trim();
+		try {
+			int portNumber = Integer.parseInt(port.trim());
+			if (portNumber <= 0) {
+				return null;
+			}
+			ProgressServer progressServer = new ProgressServer(host, portNumber, suiteName, expectedTests);
+			active = progressServer;
+			logger.info("Progress endpoint listening on http://" + host + ":" + portNumber
+					+ "/progress (SSE: /events)");
+			return progressServer;
+		} catch (NumberFormatException e) {
+			logger.warn("Invalid progress.port '" + port + "', progress endpoint disabled");
+			return null;
+		} catch (IOException e) {
+			logger.error("Failed to start progress endpoint on port " + port + ": " + e.getMessage(), e);
+			return null;
+		}
+	}
+
+	public void testStarted(String testName) {
+		started.incrementAndGet();
+		Event event = publish("start", testName, "RUNNING", 0);
+		inFlight.put(Thread.currentThread().getId(), event);
+	}
+
+	public void testFinished(String testName, String outcome, long durationMillis) {
+		inFlight.remove(Thread.currentThread().getId());
+		switch (outcome) {
+		case "PASSED":
+			passed.incrementAndGet();
+			break;
+		case "FAILED":
+			failed.incrementAndGet();
+			break;
+		default:
+			skipped.incrementAndGet();
+			break;
+		}
+		finishedDuration.addAndGet(durationMillis);
+		publish("finish", testName, outcome, durationMillis);
+	}
+
+	/**
+	 * Wrap a data provider iterator so every row read counts as an expected test
+	 * invocation; a no-op when the endpoint is disabled
+	 */
+	public static Iterator<Object[]> counted(Iterator<Object[]> rows) {
+		return new Iterator<Object[]>() {
+			@Override
+			public boolean hasNext() {
+				return rows.hasNext();
+			}
+
+			@Override
+			public Object[] next() {
+				Object[] row = rows.next();
+				ProgressServer progressServer = active;
+				if (progressServer != null) {
+					progressServer.expectedTests.incrementAndGet();
+				}
+				return row;
+			}
+		};
+	}
+
+	public void stop() {
+		running = false;
+		active = null;
+		// Give SSE clients a moment to receive the final events
+		server.stop(1);
+		executor.shutdownNow();
+		logger.info("Progress endpoint stopped");
+	}
+
+	private Event publish(String type, String testName, String outcome, long durationMillis) {
+		long seq = sequence.incrementAndGet();
+		Event event = new Event(seq, type, testName, Thread.currentThread().getName(), outcome, durationMillis,
+				System.currentTimeMillis());
+		ring.set((int) (seq % RING_SIZE), event);
+		return event;
+	}
+
+	private void handleProgress(HttpExchange exchange) throws IOException {
+		byte[] body = snapshotJson().getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	private void handleEvents(HttpExchange exchange) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+		exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+		exchange.sendResponseHeaders(200, 0);
+
+		// Replay what is still in the ring, then follow new events
+		long lastSeen = Math.max(0, sequence.get() - RING_SIZE);
+		long lastSnapshot = 0;
+		try (OutputStream out = exchange.getResponseBody()) {
+			while (running) {
+				long current = sequence.get();
+				for (long seq = lastSeen + 1; seq <= current; seq++) {
+					Event event = ring.get((int) (seq % RING_SIZE));
+					// Reserved but not written yet: stop here and pick it up on the next poll
+					if (event == null || event.seq < seq) {
+						break;
+					}
+					// A newer seq means the slot was overwritten: the client was too slow
+					if (event.seq == seq) {
+						send(out, "test", event.toJson());
+					}
+					lastSeen = seq;
+				}
+
+				long now = System.currentTimeMillis();
+				if (now - lastSnapshot >= SSE_SNAPSHOT_MILLIS) {
+					send(out, "progress", snapshotJson());
+					lastSnapshot = now;
+				}
+				out.flush();
+				Thread.sleep(SSE_POLL_MILLIS);
+			}
+		} catch (IOException e) {
+			logger.debug("Progress client disconnected: " + e.getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void send(OutputStream out, String eventName, String json) throws IOException {
+		out.write(("event: " + eventName + "\ndata: " + json + "\n\n").getBytes(StandardCharsets.UTF_8));
+	}
+
+	private String snapshotJson() {
+		long now = System.currentTimeMillis();
+		int done = passed.get() + failed.get() + skipped.get();
+		long average = done == 0 ? -1 : finishedDuration.get() / done;
+		int total = Math.max(expectedTests.get(), started.get());
+		int remaining = Math.max(0, total - done);
+		int parallelism = Math.max(1, inFlight.size());
+		long eta = average < 0 ? -1 : remaining * average / parallelism;
+
+		StringBuilder sb = new StringBuilder(256);
+		sb.append("{\"suite\":").append(quote(suiteName));
+		sb.append(",\"elapsedMs\":").append(now - suiteStart);
+		sb.append(",\"expected\":").append(total);
+		sb.append(",\"started\":").append(started.get());
+		sb.append(",\"passed\":").append(passed.get());
+		sb.append(",\"failed\":").append(failed.get());
+		sb.append(",\"skipped\":").append(skipped.get());
+		sb.append(",\"averageMs\":").append(average);
+		sb.append(",\"etaMs\":").append(eta);
+		sb.append(",\"running\":[");
+		boolean first = true;
+		for (Event event : inFlight.values()) {
+			if (!first) {
+				sb.append(',');
+			}
+			first = false;
+			sb.append("{\"test\":").append(quote(event.testName));
+			sb.append(",\"thread\":").append(quote(event.threadName));
+			sb.append(",\"runningMs\":").append(now - event.timestamp).append('}');
+		}
+		sb.append("]}");
+		return sb.toString();
+	}
+
+	private static String quote(String value) {
+		if (value == null) {
+			return "null";
+		}
+		StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				sb.append("\\\"");
+				break;
+			case '\\':
+				sb.append("\\\\");
+				break;
+			case '\n':
+				sb.append("\\n");
+				break;
+			case '\r':
+				sb.append("\\r");
+				break;
+			case '\t':
+				sb.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					sb.append(String.format("\\u%04x", (int) c));
+				} else {
+					sb.append(c);
+				}
+			}
+		}
+		return sb.append('"').toString();
+	}
+
+	/**
+	 * Immutable test start/finish event
+	 */
+	private static class Event {
+		final long seq;
+		final String type;
+		final String testName;
+		final String threadName;
+		final String outcome;
+		final long durationMillis;
+		final long timestamp;
+
+		Event(long seq, String type, String testName, String threadName, String outcome, long durationMillis,
+				long timestamp) {
+			this.seq = seq;
+			this.type = type;
+			this.testName = testName;
+			this.threadName = threadName;
+			this.outcome = outcome;
+			this.durationMillis = durationMillis;
+			this.timestamp = timestamp;
+		}
+
+		String toJson() {
+			return "{\"seq\":" + seq + ",\"type\":" + quote(type) + ",\"test\":" + quote(testName) + ",\"thread\":"
+					+ quote(threadName) + ",\"outcome\":" + quote(outcome) + ",\"durationMs\":" + durationMillis
+					+ ",\"timestamp\":" + timestamp + "}";
+		}
+	}
+}
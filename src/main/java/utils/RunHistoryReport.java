@@ -0,0 +1,85 @@
+package utils;
+
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import utils.RunHistoryStore.RunRecord;
+
+/**
+ * Command line trend report over the run history store.
+ *
+ * Usage: RunHistoryReport [testName] [lastRuns]
+ *   no arguments  - one summary line per test over the last 50 runs
+ *   testName      - summary plus every run of that test (newest last)
+ *
+ * Drift compares the median duration of the older half of the window with the
+ * newer half, which makes slow regressions over weeks visible.
+ */
+public class RunHistoryReport {
+
+	private static final int DEFAULT_RUNS = 50;
+
+	public static void main(String[] args) throws IOException {
+		RunHistoryStore store = RunHistoryStore.fromConfig();
+		String testName = args.length > 0 ? args[0] : null;
+		int lastRuns = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_RUNS;
+
+		System.out.println(String.format("%-40s %5s %7s %8s %8s %8s %7s  %s", "Test", "Runs", "Pass%", "p50(ms)",
+				"p95(ms)", "max(ms)", "Drift", "Last failure"));
+
+		if (testName != null) {
+			List<RunRecord> records = store.recent(testName, lastRuns);
+			System.out.println(summaryLine(testName, records));
+			System.out.println();
+			SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+			for (RunRecord record : records) {
+				System.out.println(String.format("%s  %-7s %8d  %-8s %-10s %s", format.format(new Date(record.timestamp)),
+						record.outcome, record.durationMillis, record.browser, record.environment,
+						record.failureSignature));
+			}
+			return;
+		}
+
+		for (String name : store.testNames()) {
+			System.out.println(summaryLine(name, store.recent(name, lastRuns)));
+		}
+	}
+
+	static String summaryLine(String testName, List<RunRecord> records) {
+		List<Long> durations = RunHistoryStore.executedDurations(records);
+		int passed = 0;
+		String lastFailure = "";
+		for (RunRecord record : records) {
+			if (RunRecord.PASSED.equals(record.outcome)) {
+				passed++;
+			} else if (RunRecord.FAILED.equals(record.outcome)) {
+				lastFailure = record.failureSignature;
+			}
+		}
+		double passRate = records.isEmpty() ? 0 : passed * 100.0 / records.size();
+		long max = durations.isEmpty() ? -1 : durations.stream().mapToLong(Long::longValue).max().getAsLong();
+
+		return String.format("%-40s %5d %6.1f%% %8d %8d %8d %7s  %s", testName, records.size(), passRate,
+				RunHistoryStore.percentile(durations, 50), RunHistoryStore.percentile(durations, 95), max,
+				drift(durations), lastFailure);
+	}
+
+	/**
+	 * Change of the median duration between the older and the newer half of the window
+	 */
+	static String drift(List<Long> durations) {
+		if (durations.size() < 4) {
+			return "n/a";
+		}
+		int half = durations.size() / 2;
+		long older = RunHistoryStore.percentile(new ArrayList<>(durations.subList(0, half)), 50);
+		long newer = RunHistoryStore.percentile(new ArrayList<>(durations.subList(half, durations.size())), 50);
+		if (older <= 0) {
+			return "n/a";
+		}
+		return String.format("%+.0f%%", (newer - older) * 100.0 / older);
+	}
+}
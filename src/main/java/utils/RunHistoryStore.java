@@ -0,0 +1,457 @@
+package utils;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Append-only store with one record per test execution.
+ *
+ * Records are kept as tab separated lines in history.log. A small side index
+ * (history.idx) maps every test name to the byte offset and length of its
+ * records so that queries for one test only read the rows they need. The index
+ * is checked against the data file on load and rebuilt when they disagree.
+ * The store lives outside target/ (see history.dir) so it survives "mvn clean";
+ * on Jenkins it is archived and restored between builds.
+ */
+public class RunHistoryStore {
+
+	private static final Logger logger = LogManager.getLogger(RunHistoryStore.class);
+	private static final String DATA_FILE = "history.log";
+	private static final String INDEX_FILE = "history.idx";
+
+	private final Path dataFile;
+	private final Path indexFile;
+	private final int maxRecordsPerTest;
+	private final long maxBytes;
+	private final Map<String, List<Long>> index = new LinkedHashMap<>();
+
+	public RunHistoryStore(Path directory, int maxRecordsPerTest, long maxBytes) throws IOException {
+		Files.createDirectories(directory);
+		this.dataFile = directory.resolve(DATA_FILE);
+		this.indexFile = directory.resolve(INDEX_FILE);
+		this.maxRecordsPerTest = maxRecordsPerTest;
+		this.maxBytes = maxBytes;
+		loadIndex();
+	}
+
+	/**
+	 * Open the store configured by history.dir, history.max.records.per.test and
+	 * history.max.bytes (system properties win over config.properties)
+	 */
+	public static RunHistoryStore fromConfig() throws IOException {
+		String dir = System.getProperty("history.dir", ConfigReader.getProperty("history.dir", "run-history"));
+		int maxRecords = Integer.parseInt(System.getProperty("history.max.records.per.test",
+				ConfigReader.getProperty("history.max.records.per.test", "500")));
+		long maxBytes = Long.parseLong(System.getProperty("history.max.bytes",
+				ConfigReader.getProperty("history.max.bytes", "8388608")));
+		return new RunHistoryStore(Paths.get(dir), maxRecords, maxBytes);
+	}
+
+	/**
+	 * Append a single execution record and index it
+	 */
+	public synchronized void append(RunRecord record) throws IOException {
+		long offset = Files.exists(dataFile) ? Files.size(dataFile) : 0L;
+		byte[] row = record.toLine().getBytes(StandardCharsets.UTF_8);
+		Files.write(dataFile, row, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		Files.write(indexFile, indexLine(record.testName, offset, row.length).getBytes(StandardCharsets.UTF_8),
+				StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		index.computeIfAbsent(record.testName, k -> new ArrayList<>()).add(offset);
+	}
+
+	public synchronized Set<String> testNames() {
+		return Collections.unmodifiableSet(new LinkedHashSet<>(index.keySet()));
+	}
+
+	/**
+	 * Return the last records of a test, oldest first
+	 */
+	public synchronized List<RunRecord> recent(String testName, int limit) throws IOException {
+		List<Long> offsets = index.get(testName);
+		List<RunRecord> records = new ArrayList<>();
+		if (offsets == null || offsets.isEmpty()) {
+			return records;
+		}
+
+		int from = Math.max(0, offsets.size() - limit);
+		try (RandomAccessFile file = new RandomAccessFile(dataFile.toFile(), "r")) {
+			for (int i = from; i < offsets.size(); i++) {
+				RunRecord record = parse(readLineAt(file, offsets.get(i)));
+				if (record != null) {
+					records.add(record);
+				}
+			}
+		}
+		return records;
+	}
+
+	/**
+	 * Nearest-rank percentile of the durations of executed (non skipped) runs,
+	 * e.g. percentileDuration("testValidLogin", 95, 50). Returns -1 without data.
+	 */
+	public long percentileDuration(String testName, double percentile, int lastRuns) throws IOException {
+		return percentile(executedDurations(recent(testName, lastRuns)), percentile);
+	}
+
+	public static List<Long> executedDurations(List<RunRecord> records) {
+		List<Long> durations = new ArrayList<>();
+		for (RunRecord record : records) {
+			if (!RunRecord.SKIPPED.equals(record.outcome)) {
+				durations.add(record.durationMillis);
+			}
+		}
+		return durations;
+	}
+
+	public static long percentile(List<Long> values, double percentile) {
+		if (values.isEmpty()) {
+			return -1;
+		}
+		List<Long> sorted = new ArrayList<>(values);
+		Collections.sort(sorted);
+		int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+		return sorted.get(Math.min(sorted.size() - 1, Math.max(0, rank - 1)));
+	}
+
+	/**
+	 * Rewrite the store keeping only the newest maxRecordsPerTest records per test.
+	 * Runs only once the store has grown past its bounds, so it is cheap to call
+	 * at the end of every suite.
+	 */
+	public synchronized void compactIfNeeded() throws IOException {
+		boolean tooLarge = Files.exists(dataFile) && Files.size(dataFile) > maxBytes;
+		boolean tooMany = false;
+		for (List<Long> offsets : index.values()) {
+			if (offsets.size() > maxRecordsPerTest) {
+				tooMany = true;
+				break;
+			}
+		}
+		if (!tooLarge && !tooMany) {
+			return;
+		}
+
+		int keep = maxRecordsPerTest;
+		if (tooLarge && !tooMany) {
+			// Every test is within its quota but the file is still over budget: halve the quota
+			int largest = 0;
+			for (List<Long> offsets : index.values()) {
+				largest = Math.max(largest, offsets.size());
+			}
+			keep = Math.max(1, largest / 2);
+		}
+
+		logger.info("Compacting run history, keeping last " + keep + " records per test");
+		Path tmpData = dataFile.resolveSibling(DATA_FILE + ".tmp");
+		Path tmpIndex = indexFile.resolveSibling(INDEX_FILE + ".tmp");
+		Map<String, List<Long>> compacted = new LinkedHashMap<>();
+
+		// Keep records in their original (chronological) order
+		List<long[]> survivors = new ArrayList<>();
+		List<String> survivorNames = new ArrayList<>();
+		for (Map.Entry<String, List<Long>> entry : index.entrySet()) {
+			List<Long> offsets = entry.getValue();
+			for (int i = Math.max(0, offsets.size() - keep); i < offsets.size(); i++) {
+				survivors.add(new long[] { offsets.get(i), survivorNames.size() });
+				survivorNames.add(entry.getKey());
+			}
+		}
+		survivors.sort((a, b) -> Long.compare(a[0], b[0]));
+
+		long written = 0;
+		try (RandomAccessFile in = new RandomAccessFile(dataFile.toFile(), "r");
+				Writer data = Files.newBufferedWriter(tmpData, StandardCharsets.UTF_8);
+				Writer idx = Files.newBufferedWriter(tmpIndex, StandardCharsets.UTF_8)) {
+			for (long[] survivor : survivors) {
+				String line = readLineAt(in, survivor[0]);
+				if (line == null) {
+					continue;
+				}
+				String testName = survivorNames.get((int) survivor[1]);
+				String row = line + "\n";
+				int length = row.getBytes(StandardCharsets.UTF_8).length;
+				data.write(row);
+				idx.write(indexLine(testName, written, length));
+				compacted.computeIfAbsent(testName, k -> new ArrayList<>()).add(written);
+				written += length;
+			}
+		}
+
+		// Drop the old index first: a crash between the moves then leaves no index (rebuilt
+		// on load) rather than an old index pointing into the new data file
+		Files.deleteIfExists(indexFile);
+		Files.move(tmpData, dataFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		Files.move(tmpIndex, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		index.clear();
+		index.putAll(compacted);
+		logger.info("Run history compacted to " + written + " bytes");
+	}
+
+	private void loadIndex() throws IOException {
+		index.clear();
+		if (!Files.exists(dataFile)) {
+			Files.deleteIfExists(indexFile);
+			return;
+		}
+
+		long dataLength = Files.size(dataFile);
+		long indexedEnd = Files.exists(indexFile) ? readIndex(dataLength) : -1;
+		if (indexedEnd < 0) {
+			logger.warn("Run history index missing or inconsistent with " + DATA_FILE + ", rebuilding it");
+			index.clear();
+			Files.deleteIfExists(indexFile);
+			indexedEnd = 0;
+		}
+
+		// Index whatever was appended to the data file without reaching the index (crash, old files)
+		if (indexedEnd < dataLength) {
+			logger.info("Indexing run history from offset " + indexedEnd);
+			long offset = indexedEnd;
+			try (RandomAccessFile file = new RandomAccessFile(dataFile.toFile(), "r")) {
+				String line;
+				while ((line = readLineAt(file, offset)) != null) {
+					long next = file.getFilePointer();
+					RunRecord record = parse(line);
+					if (record != null) {
+						index.computeIfAbsent(record.testName, k -> new ArrayList<>()).add(offset);
+						Files.write(indexFile,
+								indexLine(record.testName, offset, next - offset).getBytes(StandardCharsets.UTF_8),
+								StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+					} else if (!line.isEmpty()) {
+						logger.warn("Skipping malformed run history row at offset " + offset);
+					}
+					offset = next;
+				}
+			}
+
+			// A torn last row (crash mid append) would be glued to the next record
+			if (offset < dataLength) {
+				logger.warn("Truncating incomplete run history row at offset " + offset);
+				try (FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.WRITE)) {
+					channel.truncate(offset);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Load the index file into memory. Returns the end offset of the indexed data,
+	 * or -1 when the index does not describe the current data file: entries must
+	 * be ordered without overlaps, lie within the file, and the first and last
+	 * entries must point at complete rows of the indexed test.
+	 */
+	private long readIndex(long dataLength) throws IOException {
+		long end = 0;
+		long[] first = null;
+		long[] last = null;
+		String firstName = null;
+		String lastName = null;
+
+		try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] f = line.split("\t", -1);
+				if (f.length != 3) {
+					return -1;
+				}
+				long offset;
+				long length;
+				try {
+					offset = Long.parseLong(f[1]);
+					length = Long.parseLong(f[2]);
+				} catch (NumberFormatException e) {
+					return -1;
+				}
+				// Gaps are allowed (skipped malformed rows), overlaps and overruns are not
+				if (offset < end || length <= 0 || offset + length > dataLength) {
+					return -1;
+				}
+				String testName = unescape(f[0]);
+				index.computeIfAbsent(testName, k -> new ArrayList<>()).add(offset);
+				end = offset + length;
+				last = new long[] { offset, length };
+				lastName = testName;
+				if (first == null) {
+					first = last;
+					firstName = testName;
+				}
+			}
+		}
+
+		if (first == null) {
+			return 0;
+		}
+		try (RandomAccessFile file = new RandomAccessFile(dataFile.toFile(), "r")) {
+			if (!pointsAtRow(file, first, firstName) || !pointsAtRow(file, last, lastName)) {
+				return -1;
+			}
+		}
+		return end;
+	}
+
+	private static boolean pointsAtRow(RandomAccessFile file, long[] entry, String testName) throws IOException {
+		if (entry[0] > 0) {
+			file.seek(entry[0] - 1);
+			if (file.read() != '\n') {
+				return false;
+			}
+		}
+		RunRecord record = parse(readLineAt(file, entry[0]));
+		return record != null && file.getFilePointer() - entry[0] == entry[1] && record.testName.equals(testName);
+	}
+
+	/**
+	 * Parse a data row, returning null for missing or malformed rows
+	 */
+	private static RunRecord parse(String line) {
+		if (line == null || line.isEmpty()) {
+			return null;
+		}
+		try {
+			return RunRecord.fromLine(line);
+		} catch (RuntimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Read one UTF-8 line starting at offset. Leaves the file pointer after the
+	 * newline; returns null at end of file or for a torn (unterminated) last line.
+	 */
+	private static String readLineAt(RandomAccessFile file, long offset) throws IOException {
+		file.seek(offset);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+		byte[] buffer = new byte[256];
+		while (true) {
+			int read = file.read(buffer);
+			if (read < 0) {
+				return null;
+			}
+			for (int i = 0; i < read; i++) {
+				if (buffer[i] == '\n') {
+					bytes.write(buffer, 0, i);
+					file.seek(file.getFilePointer() - read + i + 1);
+					return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+				}
+			}
+			bytes.write(buffer, 0, read);
+		}
+	}
+
+	private static String indexLine(String testName, long offset, long length) {
+		return escape(testName) + "\t" + offset + "\t" + length + "\n";
+	}
+
+	static String escape(String value) {
+		if (value == null) {
+			return "";
+		}
+		return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+	}
+
+	static String unescape(String value) {
+		StringBuilder sb = new StringBuilder(value.length());
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '\\' && i + 1 < value.length()) {
+				char next = value.charAt(++i);
+				sb.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * One test execution
+	 */
+	public static class RunRecord {
+
+		public static final String PASSED = "PASSED";
+		public static final String FAILED = "FAILED";
+		public static final String SKIPPED = "SKIPPED";
+
+		public final long timestamp;
+		public final String testName;
+		public final String outcome;
+		public final long durationMillis;
+		public final String browser;
+		public final String environment;
+		public final String failureSignature;
+
+		public RunRecord(long timestamp, String testName, String outcome, long durationMillis, String browser,
+				String environment, String failureSignature) {
+			this.timestamp = timestamp;
+			this.testName = testName;
+			this.outcome = outcome;
+			this.durationMillis = durationMillis;
+			this.browser = browser;
+			this.environment = environment;
+			this.failureSignature = failureSignature == null ? "" : failureSignature;
+		}
+
+		String toLine() {
+			return timestamp + "\t" + escape(testName) + "\t" + outcome + "\t" + durationMillis + "\t"
+					+ escape(browser) + "\t" + escape(environment) + "\t" + escape(failureSignature) + "\n";
+		}
+
+		static RunRecord fromLine(String line) {
+			String[] f = line.split("\t", -1);
+			if (f.length < 6) {
+				throw new IllegalArgumentException("Malformed run history row: " + line);
+			}
+			return new RunRecord(Long.parseLong(f[0]), unescape(f[1]), f[2], Long.parseLong(f[3]), unescape(f[4]),
+					unescape(f[5]), f.length > 6 ? unescape(f[6]) : "");
+		}
+
+		/**
+		 * Short, stable description of a failure: exception type, message with
+		 * volatile numbers masked, and the first frame from our own code
+		 */
+		public static String signatureOf(Throwable throwable) {
+			if (throwable == null) {
+				return "";
+			}
+			String message = throwable.getMessage() == null ? "" : throwable.getMessage();
+			int newline = message.indexOf('\n');
+			if (newline >= 0) {
+				message = message.substring(0, newline);
+			}
+			message = message.replaceAll("\\d+", "#");
+			if (message.length() > 120) {
+				message = message.substring(0, 120);
+			}
+
+			String frame = "";
+			for (StackTraceElement element : throwable.getStackTrace()) {
+				String cls = element.getClassName();
+				if (cls.startsWith("tests.") || cls.startsWith("pages.") || cls.startsWith("utils.")) {
+					frame = " @ " + cls + "." + element.getMethodName();
+					break;
+				}
+			}
+			return throwable.getClass().getSimpleName() + ": " + message + frame;
+		}
+	}
+}
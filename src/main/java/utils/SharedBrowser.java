@@ -0,0 +1,229 @@
+package utils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+
+import io.github.bonigarcia.wdm.WebDriverManager;
+
+/**
+ * One Chrome process shared by all tests, with an isolated browser context
+ * (separate cookies, storage and cache) per test.
+ *
+ * A host ChromeDriver session owns the browser and creates contexts through
+ * the DevTools Target domain. Each test then gets its own lightweight
+ * chromedriver session attached to the same browser via debuggerAddress and
+ * switched to the page of its context, so tests can run in parallel without a
+ * full Chrome process each.
+ *
+ * The host chromedriver and Chrome are kept by the BrowserWatchdog for the
+ * whole suite: startup and every DevTools call have a deadline, the suite
+ * deadline can kill them and reapLeaked() catches them if quit() fails. They
+ * are never claimed by a single test, so a per-test timeout cannot take down
+ * the browser other tests are using.
+ *
+ * Enabled with browser.mode=shared-context (Chrome only).
+ */
+public class SharedBrowser {
+
+	private static final Logger logger = LogManager.getLogger(SharedBrowser.class);
+
+	private static final Duration DEVTOOLS_TIMEOUT = Duration.ofSeconds(60);
+
+	private static ChromeDriver host;
+	private static String debuggerAddress;
+	// Host chromedriver process trees, tracked by the watchdog until shutdown
+	private static List<ProcessHandle> hostProcesses = List.of();
+
+	// Browser context owned by each test driver
+	private static final Map<WebDriver, String> contexts = new ConcurrentHashMap<>();
+
+	public static boolean isEnabled() {
+		String mode = System.getProperty("browser.mode", ConfigReader.getProperty("browser.mode", "isolated"));
+		return "shared-context".equalsIgnoreCase(mode.trim());
+	}
+
+	/**
+	 * Start the shared Chrome process once. Must be called while driver creation
+	 * is serialized, so the watchdog attributes the new processes to the suite
+	 * and not to a test.
+	 */
+	public static synchronized void ensureStarted() {
+		if (host != null) {
+			return;
+		}
+
+		WebDriverManager.chromedriver().setup();
+		ChromeOptions options = new ChromeOptions();
+		options.addArguments("--remote-allow-origins=*");
+
+		long timeout = Long.parseLong(ConfigReader.getProperty("watchdog.test.timeout.seconds", "300"));
+		BrowserWatchdog.Watch startup = BrowserWatchdog.watchSuiteProcess("shared Chrome startup",
+				Duration.ofSeconds(timeout));
+		// A hung startup is killed by the deadline, which fails the constructor and frees the locks
+		startup.driverStarting();
+		try {
+			host = new ChromeDriver(options);
+		} finally {
+			startup.driverStarted();
+			if (host != null) {
+				hostProcesses = startup.keepForSuite();
+			}
+			// Kills whatever a failed or timed out startup left behind
+			startup.close();
+		}
+		if (startup.isTimedOut()) {
+			// Processes were killed just as the session came up; nothing usable is left
+			host = null;
+			hostProcesses = List.of();
+			throw new IllegalStateException("Shared Chrome startup exceeded its hard timeout");
+		}
+
+		Object chromeOptions = host.getCapabilities().getCapability("goog:chromeOptions");
+		if (chromeOptions instanceof Map) {
+			debuggerAddress = String.valueOf(((Map<?, ?>) chromeOptions).get("debuggerAddress"));
+		}
+		if (debuggerAddress == null || "null".equals(debuggerAddress)) {
+			debuggerAddress = null;
+			shutdown();
+			throw new IllegalStateException("Shared Chrome did not report a DevTools debuggerAddress");
+		}
+		logger.info("Shared Chrome started, DevTools at " + debuggerAddress);
+	}
+
+	/**
+	 * Create a new browser context in the shared Chrome and return a driver
+	 * attached to a page in that context
+	 */
+	public static WebDriver openContext() {
+		ensureStarted();
+
+		String contextId;
+		String targetId;
+		synchronized (SharedBrowser.class) {
+			Map<String, Object> context = devtools("Target.createBrowserContext", () -> host
+					.executeCdpCommand("Target.createBrowserContext", Map.of("disposeOnDetach", false)));
+			contextId = String.valueOf(context.get("browserContextId"));
+			Map<String, Object> target = devtools("Target.createTarget", () -> host.executeCdpCommand(
+					"Target.createTarget", Map.of("url", "about:blank", "browserContextId", contextId)));
+			targetId = String.valueOf(target.get("targetId"));
+		}
+
+		ChromeOptions options = new ChromeOptions();
+		options.setExperimentalOption("debuggerAddress", debuggerAddress);
+		FailureEvidenceUtil.enableLogging(options);
+
+		ChromeDriver driver;
+		try {
+			driver = new ChromeDriver(options);
+		} catch (RuntimeException e) {
+			disposeContext(contextId);
+			throw e;
+		}
+
+		// chromedriver window handles are derived from the DevTools target id
+		String handle = driver.getWindowHandles().stream()
+				.filter(h -> h.toUpperCase(Locale.ROOT).endsWith(targetId.toUpperCase(Locale.ROOT))).findFirst()
+				.orElse(null);
+		if (handle == null) {
+			driver.quit();
+			disposeContext(contextId);
+			throw new IllegalStateException("Page of browser context " + contextId + " not found");
+		}
+		driver.switchTo().window(handle);
+
+		contexts.put(driver, contextId);
+		logger.info("Opened browser context " + contextId + " in shared Chrome");
+		return driver;
+	}
+
+	/**
+	 * Detach a test driver and dispose of its browser context. Returns false if
+	 * the driver does not belong to the shared browser.
+	 */
+	public static boolean closeContext(WebDriver driver) {
+		String contextId = contexts.remove(driver);
+		if (contextId == null) {
+			return false;
+		}
+
+		try {
+			// Attached sessions only detach on quit; the shared Chrome keeps running
+			driver.quit();
+		} finally {
+			disposeContext(contextId);
+		}
+		return true;
+	}
+
+	/**
+	 * Quit the shared Chrome, called once the suite has finished and before the
+	 * suite deadline is disarmed
+	 */
+	public static synchronized void shutdown() {
+		if (host == null) {
+			return;
+		}
+
+		try {
+			devtools("quit", () -> {
+				host.quit();
+				return null;
+			});
+			// Only a clean quit releases the processes; otherwise reapLeaked() kills and counts them
+			BrowserWatchdog.release(hostProcesses);
+			logger.info("Shared Chrome closed");
+		} catch (Exception e) {
+			logger.error("Failed to close shared Chrome: " + e.getMessage(), e);
+		} finally {
+			host = null;
+			debuggerAddress = null;
+			hostProcesses = List.of();
+			contexts.clear();
+		}
+	}
+
+	private static synchronized void disposeContext(String contextId) {
+		if (host == null) {
+			return;
+		}
+
+		try {
+			// Also closes every page that is still open in the context
+			devtools("Target.disposeBrowserContext", () -> host.executeCdpCommand("Target.disposeBrowserContext",
+					Map.of("browserContextId", contextId)));
+			logger.info("Disposed browser context " + contextId);
+		} catch (Exception e) {
+			logger.error("Failed to dispose browser context " + contextId + ": " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Run a call against the host session with a deadline. A hung call kills the
+	 * host processes, which fails the call; the next test then starts a new host.
+	 */
+	private static synchronized <T> T devtools(String command, Supplier<T> call) {
+		try (BrowserWatchdog.Watch guard = BrowserWatchdog.watchProcesses("shared Chrome " + command,
+				DEVTOOLS_TIMEOUT, hostProcesses)) {
+			try {
+				return call.get();
+			} finally {
+				if (guard.isTimedOut()) {
+					logger.error("Shared Chrome hung on " + command + ", it will be restarted");
+					host = null;
+					debuggerAddress = null;
+					hostProcesses = List.of();
+				}
+			}
+		}
+	}
+}
@@ -1,6 +1,8 @@
 package listeners;
 
-import java.lang.reflect.Field;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -8,24 +10,54 @@ import org.openqa.selenium.WebDriver;
 import org.testng.ISuite;
 import org.testng.ISuiteListener;
 import org.testng.ITestListener;
+import org.testng.ITestNGMethod;
 import org.testng.ITestResult;
 
 import io.qameta.allure.Allure;
 import tests.BaseTest;
+import utils.BrowserWatchdog;
+import utils.ConfigReader;
 import utils.EmailUtil;
+import utils.FailureEvidenceUtil;
+import utils.ProgressServer;
+import utils.RunHistoryStore;
+import utils.RunHistoryStore.RunRecord;
 import utils.ScreenshotUtil;
+import utils.SharedBrowser;
 
 public class TestListener implements ITestListener, ISuiteListener {
 
 	private static final Logger logger = LogManager.getLogger(TestListener.class);
-	private int totalTests = 0;
-	private int passedTests = 0;
-	private int failedTests = 0;
-	private int skippedTests = 0;
+	// Atomic because data provider rows run in parallel
+	private final AtomicInteger totalTests = new AtomicInteger();
+	private final AtomicInteger passedTests = new AtomicInteger();
+	private final AtomicInteger failedTests = new AtomicInteger();
+	private final AtomicInteger skippedTests = new AtomicInteger();
 
 	// This will hold the Jenkins Allure URL
 	private String allureUrl = "";
 
+	// Local run history (history.dir); on Jenkins it is archived and restored between builds
+	private RunHistoryStore historyStore;
+	private String environment = "";
+
+	// Optional live progress endpoint, null unless progress.port is set
+	private ProgressServer progressServer;
+
+	/**
+	 * Test invocations known when the suite starts; data provider rows are added
+	 * by ProgressServer.counted() as the provider is read
+	 */
+	private static int expectedInvocations(ISuite suite) {
+		int invocations = 0;
+		for (ITestNGMethod method : suite.getAllMethods()) {
+			if (!method.isDataDriven()) {
+				invocations += method.getInvocationCount();
+			}
+		}
+		return invocations;
+	}
+
 	@Override
 	public void onStart(ISuite suite) {
 		logger.info("========================================");
@@ -35,17 +67,63 @@ public class TestListener implements ITestListener, ISuiteListener {
 		// Read Allure URL passed from Jenkins
 		allureUrl = System.getProperty("allure.url", "");
 		logger.info("Received Allure URL from Jenkins: " + allureUrl);
+
+		// Kill browsers left behind by earlier (crashed or aborted) builds on this agent
+		if (Boolean.parseBoolean(ConfigReader.getProperty("watchdog.reap.orphans", "true"))) {
+			int orphans = BrowserWatchdog.reapOrphans();
+			logger.info("Orphaned browser processes reaped at suite start: " + orphans);
+		}
+		long suiteTimeout = Long.parseLong(ConfigReader.getProperty("watchdog.suite.timeout.seconds", "3600"));
+		BrowserWatchdog.startSuite(Duration.ofSeconds(suiteTimeout));
+
+		progressServer = ProgressServer.startIfEnabled(suite.getName(), expectedInvocations(suite));
+
+		environment = System.getProperty("environment", ConfigReader.getProperty("environment", "demo"));
+		try {
+			historyStore = RunHistoryStore.fromConfig();
+		} catch (IOException e) {
+			logger.error("Failed to open run history store: " + e.getMessage(), e);
+		}
 	}
 
 	@Override
 	public void onFinish(ISuite suite) {
+		// Still under the suite deadline, in case quitting the shared Chrome hangs
+		SharedBrowser.shutdown();
+		BrowserWatchdog.finishSuite();
+		int leaked = BrowserWatchdog.reapLeaked();
+		int orphans = Boolean.parseBoolean(ConfigReader.getProperty("watchdog.reap.orphans", "true"))
+				? BrowserWatchdog.reapOrphans()
+				: 0;
+
 		logger.info("========================================");
 		logger.info("Test Suite Finished: " + suite.getName());
-		logger.info("Total Tests: " + totalTests);
-		logger.info("Passed: " + passedTests);
-		logger.info("Failed: " + failedTests);
-		logger.info("Skipped: " + skippedTests);
+		logger.info("Total Tests: " + totalTests.get());
+		logger.info("Passed: " + passedTests.get());
+		logger.info("Failed: " + failedTests.get());
+		logger.info("Skipped: " + skippedTests.get());
+		logger.info("Watchdog Timeouts: " + BrowserWatchdog.getTestTimeouts());
+		logger.info("Leaked Browser Processes: " + leaked + " (orphans reaped: " + orphans + ")");
 		logger.info("========================================");
+		if (leaked > 0) {
+			logger.warn(leaked + " browser process tree(s) outlived their test; check tearDown for skipped quit()");
+		}
+
+		if (historyStore != null) {
+			try {
+				historyStore.compactIfNeeded();
+			} catch (IOException e) {
+				logger.error("Failed to compact run history: " + e.getMessage(), e);
+			}
+		}
+
+		// Make sure background evidence writes are on disk before Jenkins archives them
+		FailureEvidenceUtil.flush();
+
+		if (progressServer != null) {
+			progressServer.stop();
+			progressServer = null;
+		}
 
 		// Send email with results
 		sendEmailReport();
@@ -53,33 +131,39 @@ public class TestListener implements ITestListener, ISuiteListener {
 
 	@Override
 	public void onTestStart(ITestResult result) {
-		totalTests++;
+		totalTests.incrementAndGet();
 		logger.info("========================================");
 		logger.info("Test Started: " + result.getMethod().getMethodName());
 		logger.info("Test Description: " + result.getMethod().getDescription());
 		logger.info("========================================");
 
 		Allure.step("Test Started: " + result.getMethod().getMethodName());
+		if (progressServer != null) {
+			progressServer.testStarted(getTestName(result));
+		}
 	}
 
 	@Override
 	public void onTestSuccess(ITestResult result) {
-		passedTests++;
+		passedTests.incrementAndGet();
 		logger.info("✓ Test Passed: " + result.getMethod().getMethodName());
+		recordOutcome(result, RunRecord.PASSED);
 		Allure.step("Test Passed: " + result.getMethod().getMethodName());
 	}
 
 	@Override
 	public void onTestFailure(ITestResult result) {
-		failedTests++;
+		failedTests.incrementAndGet();
 		logger.error("✗ Test Failed: " + result.getMethod().getMethodName());
 		logger.error("Failure Reason: " + result.getThrowable());
+		recordOutcome(result, RunRecord.FAILED);
 
 		// Capture screenshot on failure
 		WebDriver driver = getDriverFromTest(result);
 		if (driver != null) {
-			String testName = result.getMethod().getMethodName();
+			String testName = getTestName(result);
 			ScreenshotUtil.captureFailureScreenshot(driver, testName);
+			FailureEvidenceUtil.captureFailureEvidence(driver, testName);
 		}
 
 		Allure.step("Test Failed: " + result.getMethod().getMethodName());
@@ -87,40 +171,75 @@ public class TestListener implements ITestListener, ISuiteListener {
 
 	@Override
 	public void onTestSkipped(ITestResult result) {
-		skippedTests++;
+		skippedTests.incrementAndGet();
 		logger.warn("⊘ Test Skipped: " + result.getMethod().getMethodName());
+		recordOutcome(result, RunRecord.SKIPPED);
 		Allure.step("Test Skipped: " + result.getMethod().getMethodName());
 	}
 
 	/**
-	 * Get WebDriver instance from test class using reflection
+	 * Get WebDriver instance of the current thread from the test class
 	 */
 	private WebDriver getDriverFromTest(ITestResult result) {
 		Object testInstance = result.getInstance();
 
-		try {
-			if (testInstance instanceof BaseTest) {
-				Field driverField = BaseTest.class.getDeclaredField("driver");
-				driverField.setAccessible(true);
-				return (WebDriver) driverField.get(testInstance);
-			}
-		} catch (Exception e) {
-			logger.error("Failed to get driver from test: " + e.getMessage());
+		if (testInstance instanceof BaseTest) {
+			return ((BaseTest) testInstance).getDriver();
 		}
 
 		return null;
 	}
 
+	/**
+	 * Method name, plus the first data provider value (the scenario) for data-driven tests
+	 */
+	private String getTestName(ITestResult result) {
+		String name = result.getMethod().getMethodName();
+		Object[] parameters = result.getParameters();
+		if (parameters != null && parameters.length > 0) {
+			name += "[" + parameters[0] + "]";
+		}
+		return name;
+	}
+
+	/**
+	 * Report a finished test to the progress endpoint and the run history store
+	 */
+	private void recordOutcome(ITestResult result, String outcome) {
+		long duration = Math.max(0, result.getEndMillis() - result.getStartMillis());
+		if (progressServer != null) {
+			progressServer.testFinished(getTestName(result), outcome, duration);
+		}
+		if (historyStore == null) {
+			return;
+		}
+
+		// Resolved like TestNG resolves @Parameters("browser"): -Dbrowser (set by Jenkins) wins over testng.xml
+		String browser = System.getProperty("browser",
+				result.getTestContext().getCurrentXmlTest().getParameter("browser"));
+		if (browser == null) {
+			browser = ConfigReader.getProperty("browser", "chrome");
+		}
+		String signature = RunRecord.FAILED.equals(outcome) ? RunRecord.signatureOf(result.getThrowable()) : "";
+
+		try {
+			historyStore.append(new RunRecord(result.getStartMillis(), getTestName(result), outcome,
+					duration, browser, environment, signature));
+		} catch (IOException e) {
+			logger.error("Failed to record run history: " + e.getMessage(), e);
+		}
+	}
+
 	/**
 	 * Send email with test results
 	 */
 	private void sendEmailReport() {
 		String subject = "OpenEMR Test Execution Report - "
-				+ (failedTests == 0 ? "✓ ALL PASSED" : "✗ FAILURES DETECTED");
+				+ (failedTests.get() == 0 ? "✓ ALL PASSED" : "✗ FAILURES DETECTED");
 
 		// Pass Allure URL into email body
-		String body = EmailUtil.createTestResultEmailBody(totalTests, passedTests, failedTests, skippedTests,
-				allureUrl);
+		String body = EmailUtil.createTestResultEmailBody(totalTests.get(), passedTests.get(), failedTests.get(),
+				skippedTests.get(), allureUrl);
 
 		EmailUtil.sendEmailWithReport(subject, body, null);
 	}
@@ -1,5 +1,6 @@
 package tests;
 
+import java.lang.reflect.Method;
 import java.time.Duration;
 
 import org.apache.logging.log4j.LogManager;
@@ -9,6 +10,7 @@ import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.edge.EdgeDriver;
 import org.openqa.selenium.firefox.FirefoxDriver;
+import org.testng.SkipException;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Optional;
@@ -16,22 +18,52 @@ import org.testng.annotations.Parameters;
 
 import io.github.bonigarcia.wdm.WebDriverManager;
 import io.qameta.allure.Allure;
+import utils.BrowserWatchdog;
 import utils.ConfigReader;
+import utils.FailureEvidenceUtil;
 import utils.ScreenshotUtil;
+import utils.SharedBrowser;
 
 public class BaseTest {
 
-	protected WebDriver driver;
+	// One driver per worker thread, so data provider rows can run with parallel = true
+	private static final ThreadLocal<WebDriver> threadDriver = new ThreadLocal<>();
 	protected static final Logger logger = LogManager.getLogger(BaseTest.class);
 
+	// Hard deadline for this test; kills the driver process tree if the browser hangs
+	private static final ThreadLocal<BrowserWatchdog.Watch> threadWatch = new ThreadLocal<>();
+
 	@BeforeMethod
 	@Parameters({ "browser" })
-	public void setUp(@Optional("chrome") String browser) {
+	public void setUp(Method method, @Optional("chrome") String browser) {
 		logger.info("========== Test Execution Started ==========");
+		if (BrowserWatchdog.isSuiteExpired()) {
+			throw new SkipException("Suite hard timeout exceeded, skipping " + method.getName());
+		}
 		logger.info("Initializing WebDriver for browser: " + browser);
 
+		boolean sharedBrowser = SharedBrowser.isEnabled() && "chrome".equalsIgnoreCase(browser);
+		if (SharedBrowser.isEnabled() && !sharedBrowser) {
+			logger.warn("Shared browser contexts are only supported on Chrome, using a dedicated " + browser);
+		}
+
+		long timeout = Long.parseLong(ConfigReader.getProperty("watchdog.test.timeout.seconds", "300"));
+		BrowserWatchdog.Watch testWatch = BrowserWatchdog.watch(method.getName(), Duration.ofSeconds(timeout));
+		threadWatch.set(testWatch);
+
 		try {
-			driver = initializeDriver(browser);
+			WebDriver driver;
+			// Serialized so the watchdog can tell which new driver process belongs to this test
+			synchronized (BaseTest.class) {
+				if (sharedBrowser) {
+					// Started before this test's driver so the shared Chrome is kept by the suite, not the test
+					SharedBrowser.ensureStarted();
+				}
+				testWatch.driverStarting();
+				driver = initializeDriver(browser);
+				testWatch.driverStarted();
+			}
+			threadDriver.set(driver);
 			driver.manage().window().maximize();
 			driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(10));
 			driver.manage().timeouts().pageLoadTimeout(Duration.ofSeconds(30));
@@ -52,9 +84,17 @@ public class BaseTest {
 
 		switch (browser.toLowerCase()) {
 		case "chrome":
+			if (SharedBrowser.isEnabled()) {
+				// Isolated browser context (own cookies and storage) inside the shared Chrome process
+				driver = SharedBrowser.openContext();
+				logger.info("Chrome browser context initialized in shared browser");
+				break;
+			}
 			WebDriverManager.chromedriver().setup();
 			ChromeOptions chromeOptions = new ChromeOptions();
 			chromeOptions.addArguments("--remote-allow-origins=*");
+			// Console and network logs for the failure evidence bundle
+			FailureEvidenceUtil.enableLogging(chromeOptions);
 			driver = new ChromeDriver(chromeOptions);
 			logger.info("Chrome browser initialized");
 			break;
@@ -81,24 +121,49 @@ public class BaseTest {
 		return driver;
 	}
 
-	@AfterMethod
+	@AfterMethod(alwaysRun = true)
 	public void tearDown() {
 		logger.info("Closing browser and cleaning up");
 
-		if (driver != null) {
-			driver.quit();
-			logger.info("Browser closed successfully");
+		try {
+			if (getDriver() != null) {
+				// Shared-context drivers only detach; their browser context is disposed
+				if (!SharedBrowser.closeContext(getDriver())) {
+					getDriver().quit();
+				}
+				logger.info("Browser closed successfully");
+			}
+		} catch (Exception e) {
+			logger.error("Failed to quit browser: " + e.getMessage(), e);
+		} finally {
+			threadDriver.remove();
+			BrowserWatchdog.Watch testWatch = threadWatch.get();
+			if (testWatch != null) {
+				if (testWatch.isTimedOut()) {
+					logger.error("Test was stopped by the watchdog after exceeding its hard timeout");
+				}
+				// Kills the driver process tree if quit() did not stop it
+				testWatch.close();
+				threadWatch.remove();
+			}
 		}
 
 		logger.info("========== Test Execution Completed ==========\n");
 	}
 
+	/**
+	 * WebDriver of the test running on the current thread
+	 */
+	public WebDriver getDriver() {
+		return threadDriver.get();
+	}
+
 	protected void logTestStep(String stepDescription) {
 		logger.info("TEST STEP: " + stepDescription);
 		Allure.step(stepDescription);
 	}
 
 	protected void captureScreenshot(String screenshotName) {
-		ScreenshotUtil.captureScreenshot(driver, screenshotName);
+		ScreenshotUtil.captureScreenshot(getDriver(), screenshotName);
 	}
 }
\ No newline at end of file